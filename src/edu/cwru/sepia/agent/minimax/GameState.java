@@ -10,6 +10,9 @@ import edu.cwru.sepia.util.Direction;
 import edu.cwru.sepia.util.DistanceMetrics;
 import edu.cwru.sepia.util.Pair;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -80,11 +83,72 @@ public class GameState {
         this.depth = parent.depth + 1;
     }
 
+    /**
+     * Rebuilds a game state previously written with {@link #writeTo(DataOutput)},
+     * so a recorded root can be searched again without a SEPIA environment.
+     *
+     * @param in Stream positioned at the start of an encoded game state
+     */
+    GameState(DataInput in) throws IOException {
+        this.units = new HashMap<>();
+        this.footmen = new LinkedHashSet<>();
+        this.archers = new LinkedHashSet<>();
+        this.footmanLocations = new HashMap<>();
+        this.archerLocations = new HashMap<>();
+        this.resourceLocations = new HashSet<>();
+
+        this.xExtent = in.readShort();
+        this.yExtent = in.readShort();
+        this.depth = in.readInt();
+
+        for (int i = in.readShort(); i > 0; --i) {
+            GameUnit footman = new GameUnit("Footman", in);
+            this.units.put(footman.id, footman);
+            this.footmen.add(footman);
+            this.footmanLocations.put(footman.id, footman.location);
+        }
+        for (int i = in.readShort(); i > 0; --i) {
+            GameUnit archer = new GameUnit("Archer", in);
+            this.units.put(archer.id, archer);
+            this.archers.add(archer);
+            this.archerLocations.put(archer.id, archer.location);
+        }
+        for (int i = in.readShort(); i > 0; --i) {
+            this.resourceLocations.add(new Pair<>((int) in.readShort(), (int) in.readShort()));
+        }
+    }
+
+    /**
+     * Writes everything the search reads from this state. Footmen and archers are written in
+     * iteration order so a decoded state sums its features in the same order as the original.
+     *
+     * @param out Stream to write the encoded state to
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeShort(this.xExtent);
+        out.writeShort(this.yExtent);
+        out.writeInt(this.depth);
+
+        out.writeShort(this.footmen.size());
+        for (GameUnit footman : this.footmen) {
+            footman.writeTo(out);
+        }
+        out.writeShort(this.archers.size());
+        for (GameUnit archer : this.archers) {
+            archer.writeTo(out);
+        }
+        out.writeShort(this.resourceLocations.size());
+        for (Pair<Integer, Integer> resource : this.resourceLocations) {
+            out.writeShort(resource.a);
+            out.writeShort(resource.b);
+        }
+    }
+
     private void initialize(State.StateView state) {
 
         this.units = new HashMap<>();
-        this.footmen = new HashSet<>();
-        this.archers = new HashSet<>();
+        this.footmen = new LinkedHashSet<>();  // insertion ordered so searches are repeatable
+        this.archers = new LinkedHashSet<>();
         this.footmanLocations = new HashMap<>();
         this.archerLocations = new HashMap<>();
 
@@ -115,8 +179,8 @@ public class GameState {
 
     private void initialize(GameState parent) {
 
-        this.footmen = new HashSet<>();
-        this.archers = new HashSet<>();
+        this.footmen = new LinkedHashSet<>();
+        this.archers = new LinkedHashSet<>();
 
         this.units = parent.units.entrySet().stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, e -> new GameUnit(e.getValue())));
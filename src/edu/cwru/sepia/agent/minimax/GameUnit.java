@@ -3,6 +3,10 @@ package edu.cwru.sepia.agent.minimax;
 import edu.cwru.sepia.environment.model.state.Unit;
 import edu.cwru.sepia.util.Pair;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Created by Emilio on 3/2/16.
  */
@@ -29,6 +33,22 @@ public class GameUnit {
         this.location = new Pair<>(old.location.a, old.location.b);
     }
 
+    GameUnit(String name, DataInput in) throws IOException {
+        this.name = name;
+        this.id = in.readInt();
+        this.hp = in.readShort();
+        this.attackDamage = in.readShort();
+        this.location = new Pair<>((int) in.readShort(), (int) in.readShort());
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(this.id);
+        out.writeShort(this.hp);
+        out.writeShort(this.attackDamage);
+        out.writeShort(this.location.a);
+        out.writeShort(this.location.b);
+    }
+
     int xPosition() {
         return this.location.a;
     }
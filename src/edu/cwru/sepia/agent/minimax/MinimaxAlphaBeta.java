@@ -8,6 +8,7 @@ import edu.cwru.sepia.environment.model.history.History;
 import edu.cwru.sepia.environment.model.state.State;
 import edu.cwru.sepia.util.Direction;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
@@ -17,6 +18,11 @@ import java.util.Map;
 public class MinimaxAlphaBeta extends Agent {
 
     private final int numPlys;
+    // null unless a trace file was given; left open across episodes since every record is flushed as it is written
+    private SearchTraceWriter traceWriter;
+
+    private long nodesVisited;
+    private double rootValue;
 
     private static final int ATTACK_WEIGHT = 3;
     private static final int SOUTH_WEIGHT = 1;
@@ -30,6 +36,14 @@ public class MinimaxAlphaBeta extends Agent {
         }
 
         numPlys = Integer.parseInt(args[0]);
+
+        if (args.length > 1) {
+            try {
+                traceWriter = new SearchTraceWriter(args[1]);
+            } catch (IOException e) {
+                System.err.println("Could not open search trace " + args[1] + ", tracing disabled: " + e.getMessage());
+            }
+        }
     }
 
     @Override
@@ -39,12 +53,17 @@ public class MinimaxAlphaBeta extends Agent {
     
     @Override
     public Map<Integer, Action> middleStep(State.StateView newstate, History.HistoryView statehistory) {
-        GameStateChild bestChild = alphaBetaSearch(new GameStateChild(newstate),
-                numPlys,
-                Double.NEGATIVE_INFINITY,
-                Double.POSITIVE_INFINITY);
-        System.out.println(bestChild.action);
-        return bestChild.action;
+        SearchTrace trace = search(new GameState(newstate));
+        if (traceWriter != null) {
+            try {
+                traceWriter.append(trace);
+            } catch (IOException e) {
+                System.err.println("Could not write search trace, tracing disabled: " + e.getMessage());
+                traceWriter = null;
+            }
+        }
+        System.out.println(trace.action);
+        return trace.action;
     }
 
     @Override
@@ -62,6 +81,25 @@ public class MinimaxAlphaBeta extends Agent {
 
     }
 
+    /**
+     * Runs a full alpha beta search from the given root and records what it did. Used both by
+     * middleStep and by {@link SearchTraceReplay} so live and replayed searches are measured the same way.
+     *
+     * @param root The state to search from
+     * @return The chosen joint action along with the root value, node count and search time
+     */
+    SearchTrace search(GameState root) {
+        nodesVisited = 0;
+        rootValue = Double.NaN;  // stays NaN if the root is never expanded, e.g. with zero plys
+        long start = System.nanoTime();
+        GameStateChild bestChild = alphaBetaSearch(new GameStateChild(null, root),
+                numPlys,
+                Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+        long elapsed = System.nanoTime() - start;
+        return new SearchTrace(root, numPlys, bestChild == null ? null : bestChild.action, rootValue, nodesVisited, elapsed);
+    }
+
     /**
      * You will implement this.
      *
@@ -78,6 +116,7 @@ public class MinimaxAlphaBeta extends Agent {
      * @return The best child of this node with updated values
      */
     public GameStateChild alphaBetaSearch(GameStateChild node, int depth, double alpha, double beta) {
+        ++nodesVisited;
 
         if (depth == 0) {
             return node;
@@ -99,6 +138,9 @@ public class MinimaxAlphaBeta extends Agent {
                     alpha = Math.max(v, alpha);
                 }
             }
+            if (depth == numPlys) {
+                rootValue = v;
+            }
         } else {
             double v = Double.POSITIVE_INFINITY;
             for (GameStateChild child : orderChildrenWithHeuristics(node.state.getChildren(false))) {
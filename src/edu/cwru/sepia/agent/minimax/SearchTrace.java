@@ -0,0 +1,179 @@
+package edu.cwru.sepia.agent.minimax;
+
+import edu.cwru.sepia.action.Action;
+import edu.cwru.sepia.action.ActionType;
+import edu.cwru.sepia.action.DirectedAction;
+import edu.cwru.sepia.action.TargetedAction;
+import edu.cwru.sepia.util.Direction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summary of one root search: the state searched from, the joint action chosen,
+ * the root value, how many nodes were visited and how long it took.
+ *
+ * Nothing is encoded or hashed until {@link #encode()} is called, so building one
+ * costs the live agent nothing when tracing is off.
+ */
+public class SearchTrace {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int MOVE = 0;
+    private static final int ATTACK = 1;
+
+    final GameState root;
+    final int numPlys;
+    final Map<Integer, Action> action;  // null if the search had no move to make
+    final double score;
+    final long nodeCount;
+    final long elapsedNanos;
+
+    SearchTrace(GameState root, int numPlys, Map<Integer, Action> action, double score, long nodeCount, long elapsedNanos) {
+        this.root = root;
+        this.numPlys = numPlys;
+        this.action = action;
+        this.score = score;
+        this.nodeCount = nodeCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Encodes this trace as one log record. The root state is encoded once and those bytes
+     * are used for both the state hash and the record itself.
+     *
+     * @return The record bytes, without the length prefix the log adds
+     */
+    byte[] encode() throws IOException {
+        byte[] state = encodeState(this.root);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(state.length + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeLong(hash(state));
+        out.writeInt(this.numPlys);
+        out.writeInt(state.length);
+        out.write(state);
+
+        // sorted by unit ID so the same joint action always encodes the same way
+        Map<Integer, Action> sortedAction = new TreeMap<>(actions());
+        out.writeShort(sortedAction.size());
+        for (Action unitAction : sortedAction.values()) {
+            out.writeInt(unitAction.getUnitId());
+            if (unitAction.getType() == ActionType.PRIMITIVEMOVE) {
+                out.writeByte(MOVE);
+                out.writeInt(((DirectedAction) unitAction).getDirection().ordinal());
+            } else {
+                out.writeByte(ATTACK);
+                out.writeInt(((TargetedAction) unitAction).getTargetId());
+            }
+        }
+
+        out.writeDouble(this.score);
+        out.writeLong(this.nodeCount);
+        out.writeLong(this.elapsedNanos);
+        return bytes.toByteArray();
+    }
+
+    static SearchTrace decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+
+        long stateHash = in.readLong();
+        int numPlys = in.readInt();
+        int stateLength = in.readInt();
+        if (stateLength < 0 || stateLength > record.length) {
+            throw new IOException("corrupt state length " + stateLength);
+        }
+        byte[] state = new byte[stateLength];
+        in.readFully(state);
+        if (hash(state) != stateHash) {
+            throw new IOException("recorded state does not match its hash " + Long.toHexString(stateHash));
+        }
+        GameState root = new GameState(new DataInputStream(new ByteArrayInputStream(state)));
+
+        Map<Integer, Action> action = new TreeMap<>();
+        for (int i = in.readShort(); i > 0; --i) {
+            int unitID = in.readInt();
+            int type = in.readByte();
+            int argument = in.readInt();
+            if (type == MOVE) {
+                if (argument < 0 || argument >= Direction.values().length) {
+                    throw new IOException("corrupt direction " + argument + " for unit " + unitID);
+                }
+                action.put(unitID, Action.createPrimitiveMove(unitID, Direction.values()[argument]));
+            } else if (type == ATTACK) {
+                action.put(unitID, Action.createPrimitiveAttack(unitID, argument));
+            } else {
+                throw new IOException("corrupt action type " + type + " for unit " + unitID);
+            }
+        }
+
+        SearchTrace ret = new SearchTrace(root, numPlys, action, in.readDouble(), in.readLong(), in.readLong());
+        if (in.available() != 0) {
+            throw new IOException("corrupt record with " + in.available() + " unread bytes");
+        }
+        return ret;
+    }
+
+    /**
+     * @return The hash recorded for this trace's root state
+     */
+    long stateHash() {
+        try {
+            return hash(encodeState(this.root));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // writing to memory cannot fail
+        }
+    }
+
+    /**
+     * @return true if both traces chose the same action for every unit
+     */
+    boolean sameActionAs(SearchTrace other) {
+        Map<Integer, Action> mine = actions();
+        Map<Integer, Action> theirs = other.actions();
+        if (!mine.keySet().equals(theirs.keySet())) {
+            return false;
+        }
+        for (Map.Entry<Integer, Action> entry : mine.entrySet()) {
+            Action a = entry.getValue();
+            Action b = theirs.get(entry.getKey());
+            if (a.getType() != b.getType()) {
+                return false;
+            }
+            if (a.getType() == ActionType.PRIMITIVEMOVE
+                    ? ((DirectedAction) a).getDirection() != ((DirectedAction) b).getDirection()
+                    : ((TargetedAction) a).getTargetId() != ((TargetedAction) b).getTargetId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<Integer, Action> actions() {
+        return this.action == null ? Collections.emptyMap() : this.action;
+    }
+
+    static byte[] encodeState(GameState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        state.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    // 64-bit FNV-1a over the encoded state, so equal states hash equally across runs
+    private static long hash(byte[] state) {
+        long ret = FNV_OFFSET_BASIS;
+        for (byte b : state) {
+            ret ^= b & 0xff;
+            ret *= FNV_PRIME;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,63 @@
+package edu.cwru.sepia.agent.minimax;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Reads back the records written by {@link SearchTraceWriter}, in the order they were appended.
+ */
+public class SearchTraceReader implements Closeable {
+
+    private final DataInputStream in;
+
+    public SearchTraceReader(String path) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+
+        try {
+            if (in.readInt() != SearchTraceWriter.MAGIC) {
+                throw new IOException(path + " is not a search trace");
+            }
+            int version = in.readByte();
+            if (version != SearchTraceWriter.VERSION) {
+                throw new IOException("unsupported search trace version " + version);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        this.in = in;
+    }
+
+    /**
+     * @return The next trace in the log, or null once the log (or a truncated final record) is reached
+     */
+    public SearchTrace next() throws IOException {
+        int length;
+        try {
+            length = this.in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > SearchTraceWriter.MAX_RECORD_LENGTH) {
+            throw new IOException("corrupt search trace record length " + length);
+        }
+
+        byte[] record = new byte[length];
+        try {
+            this.in.readFully(record);
+        } catch (EOFException e) {
+            return null;  // a record cut off mid-write
+        }
+        return SearchTrace.decode(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
@@ -0,0 +1,168 @@
+package edu.cwru.sepia.agent.minimax;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Replays a search trace recorded by MinimaxAlphaBeta (pass a trace file as the agent's second
+ * argument) against the current GameState and MinimaxAlphaBeta code, without a SEPIA environment.
+ *
+ * Usage: SearchTraceReplay traceFile [-nodes maxNodeGrowth] [-latency maxLatencyGrowth] [-runs runs]
+ *                          [-save timingFile] [-baseline timingFile]
+ *
+ * Each recorded root is searched again with the recorded number of plys. The replay fails if any
+ * turn picks a different joint action or visits more than (1 + maxNodeGrowth) times its recorded
+ * node count.
+ *
+ * Search times recorded in a live game are single cold samples, so they are never used as the
+ * latency reference. Instead each root is searched once to warm up and then runs more times, and
+ * the median of those is the turn's time. -save writes these times to a new timing file; replaying
+ * the same trace with the baseline build and -save, then with the candidate build and -baseline,
+ * fails the candidate if its total time is more than (1 + maxLatencyGrowth) times the baseline's.
+ * Both replays should use the same -runs, and the timing file must hold exactly one record per
+ * turn of the trace.
+ *
+ * Without -baseline the replay never checks latency: a plain "SearchTraceReplay traceFile" only
+ * fails on changed actions and node counts.
+ */
+public class SearchTraceReplay {
+
+    private static final double DEFAULT_MAX_NODE_GROWTH = 0.0;
+    private static final double DEFAULT_MAX_LATENCY_GROWTH = 0.25;
+    private static final int DEFAULT_RUNS = 5;
+    private static final int WARMUP_RUNS = 1;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length % 2 == 0) {
+            usage();
+        }
+
+        double maxNodeGrowth = DEFAULT_MAX_NODE_GROWTH;
+        double maxLatencyGrowth = DEFAULT_MAX_LATENCY_GROWTH;
+        int runs = DEFAULT_RUNS;
+        String saveFile = null;
+        String baselineFile = null;
+
+        for (int i = 1; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "-nodes":
+                    maxNodeGrowth = Double.parseDouble(args[i + 1]);
+                    break;
+                case "-latency":
+                    maxLatencyGrowth = Double.parseDouble(args[i + 1]);
+                    break;
+                case "-runs":
+                    runs = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-save":
+                    saveFile = args[i + 1];
+                    break;
+                case "-baseline":
+                    baselineFile = args[i + 1];
+                    break;
+                default:
+                    usage();
+            }
+        }
+
+        if (runs < 1) {
+            System.err.println("runs must be at least 1");
+            System.exit(1);
+        }
+        if (saveFile != null && Files.exists(Paths.get(saveFile))) {
+            System.err.println(saveFile + " already exists");  // appending would misalign it with the trace
+            System.exit(1);
+        }
+
+        int turns = 0;
+        int failures = 0;
+        long recordedNodes = 0;
+        long replayedNodes = 0;
+        long replayedNanos = 0;
+        long baselineNanos = 0;
+
+        try (SearchTraceReader reader = new SearchTraceReader(args[0]);
+             SearchTraceReader baseline = baselineFile == null ? null : new SearchTraceReader(baselineFile);
+             SearchTraceWriter timings = saveFile == null ? null : new SearchTraceWriter(saveFile)) {
+            SearchTrace recorded;
+            while ((recorded = reader.next()) != null) {
+                ++turns;
+                MinimaxAlphaBeta agent = new MinimaxAlphaBeta(0, new String[]{Integer.toString(recorded.numPlys)});
+
+                for (int run = 0; run < WARMUP_RUNS; ++run) {
+                    agent.search(recorded.root);
+                }
+                SearchTrace replayed = null;
+                long[] times = new long[runs];
+                for (int run = 0; run < runs; ++run) {
+                    replayed = agent.search(recorded.root);
+                    times[run] = replayed.elapsedNanos;
+                }
+                Arrays.sort(times);
+                replayed = new SearchTrace(recorded.root, recorded.numPlys, replayed.action,
+                        replayed.score, replayed.nodeCount, times[runs / 2]);
+
+                long stateHash = recorded.stateHash();
+                String turn = "turn " + turns + " (state " + Long.toHexString(stateHash) + ")";
+                if (!recorded.sameActionAs(replayed)) {
+                    ++failures;
+                    System.out.println(turn + ": chose " + replayed.action + ", recorded " + recorded.action);
+                } else if (Double.compare(recorded.score, replayed.score) != 0) {
+                    System.out.println(turn + ": same action but score " + replayed.score + ", recorded " + recorded.score);
+                }
+                if (replayed.nodeCount > recorded.nodeCount * (1 + maxNodeGrowth)) {
+                    ++failures;
+                    System.out.println(turn + ": visited " + replayed.nodeCount + " nodes, recorded " + recorded.nodeCount);
+                }
+
+                if (timings != null) {
+                    timings.append(replayed);
+                }
+                if (baseline != null) {
+                    SearchTrace reference = baseline.next();
+                    if (reference == null || reference.stateHash() != stateHash) {
+                        System.err.println(baselineFile + " was not saved from a replay of " + args[0]);
+                        System.exit(1);
+                    }
+                    baselineNanos += reference.elapsedNanos;
+                }
+
+                recordedNodes += recorded.nodeCount;
+                replayedNodes += replayed.nodeCount;
+                replayedNanos += replayed.elapsedNanos;
+            }
+
+            if (baseline != null && baseline.next() != null) {
+                System.err.println(baselineFile + " has more turns than " + args[0]);
+                System.exit(1);
+            }
+        }
+
+        System.out.println(String.format("%d turns, nodes %d -> %d, search time %.1fms",
+                turns, recordedNodes, replayedNodes, replayedNanos / 1e6));
+
+        if (baselineFile == null) {
+            System.out.println("no baseline given, search time not checked (use -baseline to check it)");
+        } else {
+            System.out.println(String.format("baseline search time %.1fms", baselineNanos / 1e6));
+            if (replayedNanos > baselineNanos * (1 + maxLatencyGrowth)) {
+                ++failures;
+                System.out.println("search time regressed by more than " + (int) (maxLatencyGrowth * 100) + "%");
+            }
+        }
+
+        if (failures > 0) {
+            System.out.println(failures + " regression(s) found");
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: SearchTraceReplay traceFile [-nodes maxNodeGrowth] [-latency maxLatencyGrowth]"
+                + " [-runs runs] [-save timingFile] [-baseline timingFile]");
+        System.err.println("Search time is only checked against a -baseline timing file saved from the baseline build.");
+        System.exit(1);
+    }
+}
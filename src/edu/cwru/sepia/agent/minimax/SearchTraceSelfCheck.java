@@ -0,0 +1,182 @@
+package edu.cwru.sepia.agent.minimax;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Checks the search trace format and replay path without a SEPIA environment: game states and
+ * traces survive a write and read back, a replayed search matches the recorded one, a log with
+ * a truncated tail can still be appended to and read, and corrupt logs and records are rejected.
+ *
+ * Usage: SearchTraceSelfCheck
+ */
+public class SearchTraceSelfCheck {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        GameState root = sampleState();
+
+        // a game state encodes back to exactly the bytes it was read from
+        byte[] state = SearchTrace.encodeState(root);
+        check(Arrays.equals(state, SearchTrace.encodeState(new GameState(new DataInputStream(new ByteArrayInputStream(state))))),
+                "game state does not survive a round trip");
+
+        MinimaxAlphaBeta agent = new MinimaxAlphaBeta(0, new String[]{"2"});
+        SearchTrace first = agent.search(root);
+        SearchTrace second = agent.search(root);
+        check(first.sameActionAs(second) && Double.compare(first.score, second.score) == 0
+                        && first.nodeCount == second.nodeCount,
+                "searching the same root twice gave different results");
+
+        File log = File.createTempFile("search-trace", ".bin");
+        log.delete();
+        try {
+            try (SearchTraceWriter writer = new SearchTraceWriter(log.getPath())) {
+                writer.append(first);
+                writer.append(second);
+            }
+            try (SearchTraceReader reader = new SearchTraceReader(log.getPath())) {
+                checkSame(first, reader.next());
+                checkSame(second, reader.next());
+                check(reader.next() == null, "log has more records than were written");
+            }
+
+            // cut off the end of a record, as an interrupted game would, then append after it
+            byte[] record = first.encode();
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(log, true))) {
+                out.writeInt(record.length);
+                out.write(record, 0, record.length / 2);
+            }
+            SearchTrace zeroPlys = new MinimaxAlphaBeta(0, new String[]{"0"}).search(root);
+            check(zeroPlys.action == null, "a search with no plys should have no action");
+            try (SearchTraceWriter writer = new SearchTraceWriter(log.getPath())) {
+                writer.append(zeroPlys);
+            }
+            try (SearchTraceReader reader = new SearchTraceReader(log.getPath())) {
+                checkSame(first, reader.next());
+                checkSame(second, reader.next());
+                checkSame(zeroPlys, reader.next());
+                check(reader.next() == null, "truncated record was not dropped before appending");
+            }
+
+            // a bad length word before the end of the log is corruption: the writer refuses it and keeps every record
+            byte[] corruptLog = Files.readAllBytes(log.toPath());
+            int secondLength = SearchTraceWriter.HEADER_LENGTH + 4 + record.length;
+            corruptLog[secondLength] = corruptLog[secondLength + 1] = corruptLog[secondLength + 2] = corruptLog[secondLength + 3] = -1;
+            Files.write(log.toPath(), corruptLog);
+            try {
+                new SearchTraceWriter(log.getPath()).close();
+                check(false, "writer accepted a log with a corrupt record length");
+            } catch (IOException expected) {
+                check(Arrays.equals(corruptLog, Files.readAllBytes(log.toPath())), "writer truncated a log with a corrupt record length");
+            }
+
+            // corrupt record bodies are reported as corruption, not decoded into some other action
+            check(first.action != null && !first.action.isEmpty(), "sample search should choose an action");
+            int firstType = 22 + state.length;  // hash, plys, state length, state, action count, unit ID
+            byte[] badType = record.clone();
+            badType[firstType] = 7;
+            checkCorrupt(badType, "an unknown action type");
+            byte[] badDirection = record.clone();
+            badDirection[firstType] = 0;
+            badDirection[firstType + 1] = badDirection[firstType + 2] = badDirection[firstType + 3] = 0;
+            badDirection[firstType + 4] = 99;
+            checkCorrupt(badDirection, "an out of range direction");
+            checkCorrupt(Arrays.copyOf(record, record.length + 1), "trailing bytes");
+
+            // the writer refuses files that are not traces and leaves them alone
+            Files.write(log.toPath(), "not a trace".getBytes());
+            try {
+                new SearchTraceWriter(log.getPath()).close();
+                check(false, "writer accepted a file that is not a trace");
+            } catch (IOException expected) {
+                check(new String(Files.readAllBytes(log.toPath())).equals("not a trace"), "writer changed a file that is not a trace");
+            }
+
+            // a corrupt length prefix is reported instead of being allocated
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(log))) {
+                out.writeInt(SearchTraceWriter.MAGIC);
+                out.writeByte(SearchTraceWriter.VERSION);
+                out.writeInt(-1);
+            }
+            try (SearchTraceReader reader = new SearchTraceReader(log.getPath())) {
+                reader.next();
+                check(false, "reader accepted a negative record length");
+            } catch (IOException expected) {
+                // reported as a readable error
+            }
+        } finally {
+            log.delete();
+        }
+
+        if (failures > 0) {
+            System.out.println(failures + " search trace check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("search trace checks passed");
+    }
+
+    // two footmen in the top left, two archers in the bottom right and a tree between them
+    private static GameState sampleState() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(15);  // xExtent
+        out.writeShort(15);  // yExtent
+        out.writeInt(0);     // depth
+        out.writeShort(2);   // footmen: id, hp, attack damage, x, y
+        writeUnit(out, 0, 160, 10, 1, 1);
+        writeUnit(out, 1, 160, 10, 3, 1);
+        out.writeShort(2);   // archers
+        writeUnit(out, 2, 50, 5, 7, 9);
+        writeUnit(out, 3, 50, 5, 9, 10);
+        out.writeShort(1);   // trees
+        out.writeShort(5);
+        out.writeShort(5);
+        return new GameState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static void writeUnit(DataOutputStream out, int id, int hp, int attackDamage, int x, int y) throws IOException {
+        out.writeInt(id);
+        out.writeShort(hp);
+        out.writeShort(attackDamage);
+        out.writeShort(x);
+        out.writeShort(y);
+    }
+
+    private static void checkCorrupt(byte[] record, String what) {
+        try {
+            SearchTrace.decode(record);
+            check(false, "record with " + what + " was decoded");
+        } catch (IOException expected) {
+            // reported as corruption
+        }
+    }
+
+    private static void checkSame(SearchTrace expected, SearchTrace actual) {
+        check(actual != null, "record missing from log");
+        if (actual == null) {
+            return;
+        }
+        check(expected.stateHash() == actual.stateHash(), "root state changed in the log");
+        check(expected.numPlys == actual.numPlys, "plys changed in the log");
+        check(expected.sameActionAs(actual), "action changed in the log");
+        check(Double.compare(expected.score, actual.score) == 0, "score changed in the log");
+        check(expected.nodeCount == actual.nodeCount, "node count changed in the log");
+        check(expected.elapsedNanos == actual.elapsedNanos, "search time changed in the log");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            ++failures;
+            System.out.println("FAILED: " + message);
+        }
+    }
+}
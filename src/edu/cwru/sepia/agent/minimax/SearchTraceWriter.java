@@ -0,0 +1,106 @@
+package edu.cwru.sepia.agent.minimax;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends search traces to a binary log. Each record is written as a length prefix followed by
+ * its bytes and flushed on its own. A game that is cut off can leave a truncated record at the end
+ * of the file, so opening an existing log first checks its header and cuts it back to the end of
+ * the last complete record before anything new is appended.
+ */
+public class SearchTraceWriter implements Closeable {
+
+    static final int MAGIC = 0x534d5452;  // "SMTR"
+    static final int VERSION = 2;
+    static final int HEADER_LENGTH = 5;  // magic int + version byte
+    static final int MAX_RECORD_LENGTH = 1 << 24;
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+
+    public SearchTraceWriter(String path) throws IOException {
+        this.channel = FileChannel.open(Paths.get(path),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long end;
+        try {
+            end = endOfLastCompleteRecord(path);
+            this.channel.truncate(end);
+            this.channel.position(end);
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+
+        this.out = new DataOutputStream(Channels.newOutputStream(this.channel));
+        if (end == 0) {
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+            this.out.flush();
+        }
+    }
+
+    public void append(SearchTrace trace) throws IOException {
+        byte[] record = trace.encode();
+
+        this.out.writeInt(record.length);
+        this.out.write(record);
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+    // walks the length-prefixed records and returns the offset just past the last one that is whole;
+    // only a record running past the end of the file is treated as cut off
+    private long endOfLastCompleteRecord(String path) throws IOException {
+        long size = this.channel.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        if (size < HEADER_LENGTH) {
+            throw new IOException(path + " is not a search trace");
+        }
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC || header.get(4) != VERSION) {
+            throw new IOException(path + " is not a version " + VERSION + " search trace");
+        }
+
+        long position = HEADER_LENGTH;
+        ByteBuffer length = ByteBuffer.allocate(4);
+        while (position + 4 <= size) {
+            length.clear();
+            readFully(length, position);
+            int recordLength = length.getInt(0);
+            if (recordLength < 0 || recordLength > MAX_RECORD_LENGTH) {
+                // a length no writer produces is corruption, not a cut-off tail, so leave the file alone
+                throw new IOException(path + " has a corrupt record length " + recordLength + " at offset " + position);
+            }
+            if (position + 4 + recordLength > size) {
+                break;
+            }
+            position += 4 + recordLength;
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}